@@ -0,0 +1,431 @@
+package dk.apaq.rest.version;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import jakarta.servlet.ServletContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional warm-up of versioned resources.
+ * When registered as a bean, it sends synthetic requests for every combination of versioned path and registered
+ * {@link ApiVersion} once the application has started, which is before it reports itself as ready.
+ *
+ * By default the requests are only resolved through the {@link ApiVersionedRequestMapping}, which warms up the
+ * version matching but not the handlers. When a {@link DispatcherServlet} is set, GET and HEAD requests are also
+ * dispatched through it, warming up handler adapters, argument resolvers, message converters and the controllers
+ * themselves. The responses are discarded. Requests with other methods are never dispatched as they may have side
+ * effects.
+ *
+ * Dispatched requests go directly to the {@link DispatcherServlet}, so servlet filters such as Spring Security are
+ * not applied. Each dispatched request publishes a {@link org.springframework.web.context.support.ServletRequestHandledEvent}
+ * unless event publishing is disabled on the servlet.
+ */
+public class ApiVersionedWarmup implements ApplicationListener<ApplicationStartedEvent> {
+
+    // Default number of iterations when handlers are only resolved.
+    public static final int DEFAULT_ITERATIONS = 1000;
+
+    // Default number of iterations when requests are dispatched, as every iteration invokes the controllers.
+    public static final int DEFAULT_DISPATCH_ITERATIONS = 10;
+
+    // Logger for this class.
+    private final static Logger LOG = LoggerFactory.getLogger(ApiVersionedWarmup.class);
+
+    // Value used in place of URI variables when building the synthetic request paths.
+    private static final String URI_VARIABLE_VALUE = "0";
+
+    // The handler mapping to warm up.
+    private final ApiVersionedRequestMapping handlerMapping;
+
+    // The servlet to dispatch GET and HEAD requests through, or null to only resolve handlers.
+    private DispatcherServlet dispatcherServlet;
+
+    // The number of times every path and version combination is requested, or null to use the default.
+    private Integer iterations;
+
+    // The maximum time the warm-up is allowed to take.
+    private Duration timeBudget = Duration.ofSeconds(10);
+
+    // The number of iterations completed by the last run.
+    private volatile int completedIterations;
+
+    // The time spent warming up each version in the last run.
+    private volatile Map<ApiVersion, Duration> timings = Collections.emptyMap();
+
+    // The number of requests per version that succeeded in the last run.
+    private volatile Map<ApiVersion, Integer> resolvedCounts = Collections.emptyMap();
+
+    // The number of requests per version that did not resolve to a handler in the last run.
+    private volatile Map<ApiVersion, Integer> unresolvedCounts = Collections.emptyMap();
+
+    // The number of requests per version that resolved but failed to dispatch in the last run.
+    private volatile Map<ApiVersion, Integer> dispatchFailedCounts = Collections.emptyMap();
+
+    /**
+     * Constructs a warm-up for the given handler mapping.
+     *
+     * @param handlerMapping The {@link ApiVersionedRequestMapping} to warm up.
+     */
+    public ApiVersionedWarmup(ApiVersionedRequestMapping handlerMapping) {
+        this.handlerMapping = handlerMapping;
+    }
+
+    /**
+     * Sets the servlet to dispatch GET and HEAD requests through. The servlet must be initialized when the warm-up
+     * runs, which in Spring Boot requires {@code spring.mvc.servlet.load-on-startup} to be set. Otherwise, handlers
+     * are only resolved.
+     *
+     * @param dispatcherServlet The {@link DispatcherServlet}, or null to only resolve handlers.
+     */
+    public void setDispatcherServlet(DispatcherServlet dispatcherServlet) {
+        this.dispatcherServlet = dispatcherServlet;
+    }
+
+    /**
+     * Sets the number of times every path and version combination is requested. If not set, it defaults to
+     * {@link #DEFAULT_DISPATCH_ITERATIONS} when requests are dispatched and {@link #DEFAULT_ITERATIONS} otherwise.
+     *
+     * @param iterations The number of iterations, zero or more.
+     * @throws IllegalArgumentException If the number of iterations is negative.
+     */
+    public void setIterations(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Iterations must not be negative");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Sets the maximum time the warm-up is allowed to take. The warm-up stops after the iteration that exceeds it.
+     *
+     * @param timeBudget The time budget, zero or more.
+     * @throws IllegalArgumentException If the time budget is null or negative.
+     */
+    public void setTimeBudget(Duration timeBudget) {
+        if (timeBudget == null || timeBudget.isNegative()) {
+            throw new IllegalArgumentException("Time budget must not be null or negative");
+        }
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Returns the number of iterations completed by the last run.
+     *
+     * @return The number of completed iterations.
+     */
+    public int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    /**
+     * Returns the time spent warming up each version in the last run.
+     *
+     * @return An immutable map of versions and the time spent on them.
+     */
+    public Map<ApiVersion, Duration> getTimings() {
+        return timings;
+    }
+
+    /**
+     * Returns the number of requests per version that resolved to a handler and, when dispatched, completed with a
+     * status below 400 in the last run.
+     *
+     * @return An immutable map of versions and their resolved request counts.
+     */
+    public Map<ApiVersion, Integer> getResolvedCounts() {
+        return resolvedCounts;
+    }
+
+    /**
+     * Returns the number of requests per version that did not resolve to a handler in the last run.
+     *
+     * @return An immutable map of versions and their unresolved request counts.
+     */
+    public Map<ApiVersion, Integer> getUnresolvedCounts() {
+        return unresolvedCounts;
+    }
+
+    /**
+     * Returns the number of requests per version that resolved to a handler, but whose dispatch threw or completed
+     * with a status of 400 or above in the last run.
+     *
+     * @return An immutable map of versions and their failed dispatch counts.
+     */
+    public Map<ApiVersion, Integer> getDispatchFailedCounts() {
+        return dispatchFailedCounts;
+    }
+
+    /**
+     * Runs the warm-up when the application has started and before it reports itself as ready.
+     *
+     * @param event The event published when the application has started.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        warmUp();
+    }
+
+    /**
+     * Requests every versioned path once per registered version it applies to, for the configured number of
+     * iterations or until the time budget is spent.
+     */
+    public void warmUp() {
+        List<WarmupTarget> targets = createTargets();
+        List<ApiVersion> versions = ApiVersion.getVersions();
+        boolean[][] applicable = findApplicable(targets, versions);
+        boolean dispatch = canDispatch();
+        ServletContext servletContext = dispatch ? dispatcherServlet.getServletContext() : null;
+        int maxIterations = iterations != null ? iterations : (dispatch ? DEFAULT_DISPATCH_ITERATIONS : DEFAULT_ITERATIONS);
+        long[] elapsed = new long[versions.size()];
+        int[] resolved = new int[versions.size()];
+        int[] unresolved = new int[versions.size()];
+        int[] dispatchFailed = new int[versions.size()];
+        int[] unresolvedPerTarget = new int[targets.size()];
+        int[] attemptsPerTarget = new int[targets.size()];
+        int[] dispatchFailedPerTarget = new int[targets.size()];
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        int iteration = 0;
+
+        if (!targets.isEmpty() && !versions.isEmpty()) {
+            while (iteration < maxIterations && System.nanoTime() - deadline < 0) {
+                for (int i = 0; i < versions.size(); i++) {
+                    long start = System.nanoTime();
+                    for (int j = 0; j < targets.size(); j++) {
+                        if (!applicable[j][i]) {
+                            continue;
+                        }
+                        attemptsPerTarget[j]++;
+                        switch (execute(targets.get(j), versions.get(i), dispatch, servletContext)) {
+                            case RESOLVED:
+                                resolved[i]++;
+                                break;
+                            case UNRESOLVED:
+                                unresolved[i]++;
+                                unresolvedPerTarget[j]++;
+                                break;
+                            case DISPATCH_FAILED:
+                                dispatchFailed[i]++;
+                                dispatchFailedPerTarget[j]++;
+                                break;
+                        }
+                    }
+                    elapsed[i] += System.nanoTime() - start;
+                }
+                iteration++;
+            }
+        } else {
+            LOG.debug("Nothing to warm up");
+        }
+
+        Map<ApiVersion, Duration> newTimings = new LinkedHashMap<>();
+        Map<ApiVersion, Integer> newResolvedCounts = new LinkedHashMap<>();
+        Map<ApiVersion, Integer> newUnresolvedCounts = new LinkedHashMap<>();
+        Map<ApiVersion, Integer> newDispatchFailedCounts = new LinkedHashMap<>();
+        for (int i = 0; i < versions.size() && !targets.isEmpty(); i++) {
+            ApiVersion version = versions.get(i);
+            newTimings.put(version, Duration.ofNanos(elapsed[i]));
+            newResolvedCounts.put(version, resolved[i]);
+            newUnresolvedCounts.put(version, unresolved[i]);
+            newDispatchFailedCounts.put(version, dispatchFailed[i]);
+            LOG.info("Warmed up version {} in {} ms: {} requests resolved, {} unresolved, {} failed to dispatch "
+                            + "({} iterations)", version.getVersion(), Duration.ofNanos(elapsed[i]).toMillis(),
+                    resolved[i], unresolved[i], dispatchFailed[i], iteration);
+        }
+        for (int j = 0; j < targets.size(); j++) {
+            WarmupTarget target = targets.get(j);
+            if (attemptsPerTarget[j] > 0 && unresolvedPerTarget[j] == attemptsPerTarget[j]) {
+                LOG.warn("Warm-up request {} {} never resolved to a handler", target.method, target.path);
+            }
+            if (dispatchFailedPerTarget[j] > 0) {
+                LOG.warn("Warm-up request {} {} failed to dispatch {} of {} times", target.method, target.path,
+                        dispatchFailedPerTarget[j], attemptsPerTarget[j]);
+            }
+        }
+
+        this.completedIterations = iteration;
+        this.timings = Collections.unmodifiableMap(newTimings);
+        this.resolvedCounts = Collections.unmodifiableMap(newResolvedCounts);
+        this.unresolvedCounts = Collections.unmodifiableMap(newUnresolvedCounts);
+        this.dispatchFailedCounts = Collections.unmodifiableMap(newDispatchFailedCounts);
+    }
+
+    /**
+     * Resolves the handler for a synthetic request and, when dispatching, dispatches it.
+     *
+     * @param target         The method and path to request.
+     * @param version        The version to request.
+     * @param dispatch       Whether dispatchable requests should be dispatched through the {@link DispatcherServlet}.
+     * @param servletContext The servlet context of the dispatched requests.
+     * @return The outcome of the request.
+     */
+    private Outcome execute(WarmupTarget target, ApiVersion version, boolean dispatch, ServletContext servletContext) {
+        WarmupHttpServletRequest request = target.createRequest(version, servletContext);
+        try {
+            if (handlerMapping.getPatternParser() != null) {
+                ServletRequestPathUtils.parseAndCache(request);
+            }
+            if (handlerMapping.getHandler(request) == null) {
+                LOG.debug("No handler for warm-up request {} {} with version {}", target.method, target.path,
+                        version.getVersion());
+                return Outcome.UNRESOLVED;
+            }
+        } catch (Exception ex) {
+            LOG.debug("Resolving warm-up request {} {} with version {} failed", target.method, target.path,
+                    version.getVersion(), ex);
+            return Outcome.UNRESOLVED;
+        }
+
+        if (dispatch && target.dispatchable) {
+            WarmupHttpServletResponse response = new WarmupHttpServletResponse();
+            try {
+                dispatcherServlet.service(target.createRequest(version, servletContext), response);
+            } catch (Exception ex) {
+                LOG.debug("Dispatching warm-up request {} {} with version {} failed", target.method, target.path,
+                        version.getVersion(), ex);
+                return Outcome.DISPATCH_FAILED;
+            }
+            if (response.getStatus() >= 400) {
+                LOG.debug("Dispatching warm-up request {} {} with version {} returned status {}", target.method,
+                        target.path, version.getVersion(), response.getStatus());
+                return Outcome.DISPATCH_FAILED;
+            }
+        }
+        return Outcome.RESOLVED;
+    }
+
+    /**
+     * Checks whether requests can be dispatched through the {@link DispatcherServlet}.
+     *
+     * @return True if a servlet is set and initialized, otherwise false.
+     */
+    private boolean canDispatch() {
+        if (dispatcherServlet == null) {
+            return false;
+        }
+        if (dispatcherServlet.getServletConfig() == null) {
+            LOG.warn("DispatcherServlet is not initialized, warm-up requests are only resolved. "
+                    + "Set spring.mvc.servlet.load-on-startup to dispatch them.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the versions each target applies to. A target does not apply to versions before the one it was
+     * introduced in, as those requests are expected not to resolve.
+     *
+     * @param targets  The targets to check.
+     * @param versions The registered versions.
+     * @return A matrix indexed by target and version.
+     */
+    private static boolean[][] findApplicable(List<WarmupTarget> targets, List<ApiVersion> versions) {
+        boolean[][] result = new boolean[targets.size()][versions.size()];
+
+        for (int j = 0; j < targets.size(); j++) {
+            for (int i = 0; i < versions.size(); i++) {
+                WarmupTarget target = targets.get(j);
+                result[j][i] = target.condition.getMatchingCondition(target.createRequest(versions.get(i), null)) != null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a target for every path of the handler methods carrying an
+     * {@link ApiVersionedResourceRequestCondition}. Wildcard patterns are skipped as no single path represents them.
+     *
+     * @return A list of targets holding method, path and condition.
+     */
+    private List<WarmupTarget> createTargets() {
+        List<WarmupTarget> result = new ArrayList<>();
+
+        for (RequestMappingInfo info : handlerMapping.getHandlerMethods().keySet()) {
+            if (!(info.getCustomCondition() instanceof ApiVersionedResourceRequestCondition)) {
+                continue;
+            }
+            ApiVersionedResourceRequestCondition condition = (ApiVersionedResourceRequestCondition) info.getCustomCondition();
+
+            Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+            String method;
+            boolean dispatchable = true;
+            if (methods.isEmpty() || methods.contains(RequestMethod.GET)) {
+                method = RequestMethod.GET.name();
+            } else if (methods.contains(RequestMethod.HEAD)) {
+                method = RequestMethod.HEAD.name();
+            } else {
+                method = methods.iterator().next().name();
+                dispatchable = false;
+            }
+
+            for (String pattern : info.getPatternValues()) {
+                if (pattern.contains("*")) {
+                    continue;
+                }
+                String path = pattern.replaceAll("\\{[^/]+?}", URI_VARIABLE_VALUE);
+                result.add(new WarmupTarget(method, path, condition, dispatchable));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The outcome of a single warm-up request.
+     */
+    private enum Outcome {
+        RESOLVED, UNRESOLVED, DISPATCH_FAILED
+    }
+
+    /**
+     * A method and path to send warm-up requests to.
+     */
+    private static final class WarmupTarget {
+
+        // The HTTP method to request.
+        private final String method;
+
+        // The path to request.
+        private final String path;
+
+        // The version condition of the handler the path belongs to.
+        private final ApiVersionedResourceRequestCondition condition;
+
+        // Whether requests may be dispatched through the DispatcherServlet.
+        private final boolean dispatchable;
+
+        private WarmupTarget(String method, String path, ApiVersionedResourceRequestCondition condition,
+                             boolean dispatchable) {
+            this.method = method;
+            this.path = path;
+            this.condition = condition;
+            this.dispatchable = dispatchable;
+        }
+
+        /**
+         * Creates a synthetic request for this target and the given version.
+         *
+         * @param version        The version to request.
+         * @param servletContext The servlet context of the request, or null if not dispatched.
+         * @return A new request.
+         */
+        private WarmupHttpServletRequest createRequest(ApiVersion version, ServletContext servletContext) {
+            WarmupHttpServletRequest request = new WarmupHttpServletRequest(method, path, servletContext);
+            request.setHeader(ApiVersionedResourceRequestCondition.HEADER_VERSION, version.getVersion());
+            return request;
+        }
+    }
+}
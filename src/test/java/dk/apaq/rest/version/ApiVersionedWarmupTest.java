@@ -0,0 +1,265 @@
+package dk.apaq.rest.version;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiVersionedWarmupTest {
+
+    private ApiVersionedRequestMapping handlerMapping;
+    private ApiVersion v1;
+    private ApiVersion v2;
+    private Method getCat;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ApiVersion.clear();
+        v1 = new ApiVersion("2023-01-01");
+        v2 = new ApiVersion("2024-01-01");
+        ApiVersion.registerVersion(v1);
+        ApiVersion.registerVersion(v2);
+
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.refresh();
+        handlerMapping = new ApiVersionedRequestMapping();
+        handlerMapping.setApplicationContext(context);
+        handlerMapping.afterPropertiesSet();
+
+        getCat = MockController.class.getMethod("getCat", String.class);
+        register("/cats/{id}", getCat);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Do not leak registered versions into other test classes
+        ApiVersion.clear();
+    }
+
+    @Test
+    void testSyntheticRequest_ResolvesToRegisteredHandler() throws Exception {
+        for (ApiVersion version : ApiVersion.getVersions()) {
+            WarmupHttpServletRequest request = new WarmupHttpServletRequest("GET", "/cats/0");
+            request.setHeader(ApiVersionedResourceRequestCondition.HEADER_VERSION, version.getVersion());
+            ServletRequestPathUtils.parseAndCache(request);
+
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+
+            // Verify that the synthetic request reaches the registered handler method
+            assertNotNull(chain);
+            assertEquals(getCat, ((HandlerMethod) chain.getHandler()).getMethod());
+        }
+    }
+
+    @Test
+    void testWarmUp_ReportsTimingAndCountsPerVersion() {
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(handlerMapping);
+        warmup.setIterations(3);
+
+        warmup.warmUp();
+
+        // Verify that every registered version has been warmed up and every request resolved
+        Map<ApiVersion, Duration> timings = warmup.getTimings();
+        assertEquals(2, timings.size());
+        assertTrue(timings.containsKey(v1));
+        assertTrue(timings.containsKey(v2));
+        assertEquals(3, warmup.getResolvedCounts().get(v1));
+        assertEquals(3, warmup.getResolvedCounts().get(v2));
+        assertEquals(0, warmup.getUnresolvedCounts().get(v1));
+        assertEquals(0, warmup.getUnresolvedCounts().get(v2));
+        assertEquals(0, warmup.getDispatchFailedCounts().get(v1));
+        assertEquals(0, warmup.getDispatchFailedCounts().get(v2));
+    }
+
+    @Test
+    void testWarmUp_DispatchesGetRequestsThroughDispatcherServlet() throws Exception {
+        GenericWebApplicationContext context = createWebContext();
+        DispatcherServlet dispatcherServlet = new DispatcherServlet(context);
+        dispatcherServlet.init(new MockServletConfig(context.getServletContext()));
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(context.getBean(ApiVersionedRequestMapping.class));
+        warmup.setDispatcherServlet(dispatcherServlet);
+
+        warmup.warmUp();
+
+        // Verify that the GET handler is invoked for both versions using the lower default for dispatching
+        VersionedController controller = context.getBean(VersionedController.class);
+        int iterations = ApiVersionedWarmup.DEFAULT_DISPATCH_ITERATIONS;
+        assertEquals(iterations, warmup.getCompletedIterations());
+        assertEquals(2 * iterations, controller.getCount.get());
+
+        // Verify that the POST handler is only resolved, never invoked
+        assertEquals(0, controller.postCount.get());
+
+        // Verify that GET and POST count as resolved and the 400 from the missing parameter as a failed dispatch
+        assertEquals(2 * iterations, warmup.getResolvedCounts().get(v1));
+        assertEquals(0, warmup.getUnresolvedCounts().get(v1));
+        assertEquals(iterations, warmup.getDispatchFailedCounts().get(v1));
+    }
+
+    @Test
+    void testWarmUp_OnlyResolvesWhenDispatcherServletIsNotInitialized() {
+        GenericWebApplicationContext context = createWebContext();
+        context.refresh();
+        DispatcherServlet dispatcherServlet = new DispatcherServlet(context);
+        assertNull(dispatcherServlet.getServletConfig());
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(context.getBean(ApiVersionedRequestMapping.class));
+        warmup.setDispatcherServlet(dispatcherServlet);
+        warmup.setIterations(3);
+
+        warmup.warmUp();
+
+        // Verify that no handler is invoked and every request is only resolved
+        VersionedController controller = context.getBean(VersionedController.class);
+        assertEquals(0, controller.getCount.get());
+        assertEquals(0, controller.postCount.get());
+        assertEquals(9, warmup.getResolvedCounts().get(v1));
+        assertEquals(0, warmup.getDispatchFailedCounts().get(v1));
+    }
+
+    @Test
+    void testWarmUp_HonoursIterations() {
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(handlerMapping);
+        warmup.setIterations(7);
+
+        warmup.warmUp();
+
+        assertEquals(7, warmup.getCompletedIterations());
+    }
+
+    @Test
+    void testWarmUp_StopsWhenTimeBudgetIsSpent() {
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(handlerMapping);
+        warmup.setIterations(Integer.MAX_VALUE);
+        warmup.setTimeBudget(Duration.ofNanos(1));
+
+        warmup.warmUp();
+
+        // The deadline is checked before every iteration, so at most the first one can run
+        assertTrue(warmup.getCompletedIterations() <= 1);
+    }
+
+    @Test
+    void testWarmUp_CountsUnresolvedRequests() throws Exception {
+        register("/dogs/{name:[a-z]+}", MockController.class.getMethod("getDog", String.class));
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(handlerMapping);
+        warmup.setIterations(2);
+
+        warmup.warmUp();
+
+        // Verify that the path with a constrained variable is reported as unresolved
+        assertEquals(2, warmup.getResolvedCounts().get(v1));
+        assertEquals(2, warmup.getUnresolvedCounts().get(v1));
+    }
+
+    @Test
+    void testWarmUp_PublishesNewResultsPerRun() {
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(handlerMapping);
+        warmup.setIterations(1);
+        warmup.warmUp();
+        Map<ApiVersion, Integer> first = warmup.getResolvedCounts();
+
+        warmup.setIterations(2);
+        warmup.warmUp();
+
+        // Verify that results from an earlier run are not changed by a later run
+        assertEquals(1, first.get(v1));
+        assertEquals(2, warmup.getResolvedCounts().get(v1));
+    }
+
+    @Test
+    void testWarmUp_NoVersionedMappings() {
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(new ApiVersionedRequestMapping());
+
+        warmup.warmUp();
+
+        // Verify that nothing is reported when there is nothing to warm up
+        assertTrue(warmup.getTimings().isEmpty());
+        assertEquals(0, warmup.getCompletedIterations());
+    }
+
+    @Test
+    void testSetters_RejectInvalidValues() {
+        ApiVersionedWarmup warmup = new ApiVersionedWarmup(handlerMapping);
+
+        assertThrows(IllegalArgumentException.class, () -> warmup.setIterations(-1));
+        assertThrows(IllegalArgumentException.class, () -> warmup.setTimeBudget(null));
+        assertThrows(IllegalArgumentException.class, () -> warmup.setTimeBudget(Duration.ofSeconds(-1)));
+    }
+
+    private GenericWebApplicationContext createWebContext() {
+        GenericWebApplicationContext context = new GenericWebApplicationContext(new MockServletContext());
+        context.registerBean(ApiVersionedRequestMapping.class);
+        context.registerBean(RequestMappingHandlerAdapter.class);
+        context.registerBean(VersionedController.class);
+        return context;
+    }
+
+    private void register(String path, Method method) {
+        RequestMappingInfo info = RequestMappingInfo.paths(path)
+                .methods(RequestMethod.GET)
+                .customCondition(new ApiVersionedResourceRequestCondition("2023-01-01"))
+                .options(handlerMapping.getBuilderConfiguration())
+                .build();
+        handlerMapping.registerMapping(info, new MockController(), method);
+    }
+
+    // Mock controller with versioned paths
+    public static class MockController {
+
+        public String getCat(String id) {
+            return id;
+        }
+
+        public String getDog(String name) {
+            return name;
+        }
+    }
+
+    // Versioned controller counting its invocations
+    @RestController
+    @ApiVersionedResource(version = "2023-01-01")
+    public static class VersionedController {
+
+        private final AtomicInteger getCount = new AtomicInteger();
+        private final AtomicInteger postCount = new AtomicInteger();
+
+        @GetMapping("/cats/{id}")
+        public String getCat(@PathVariable("id") String id) {
+            getCount.incrementAndGet();
+            return "cat " + id;
+        }
+
+        @PostMapping("/cats")
+        public String createCat() {
+            postCount.incrementAndGet();
+            return "created";
+        }
+
+        @GetMapping("/search")
+        public String search(@RequestParam("name") String name) {
+            return name;
+        }
+    }
+}
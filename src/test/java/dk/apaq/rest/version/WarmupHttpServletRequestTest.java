@@ -0,0 +1,57 @@
+package dk.apaq.rest.version;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockServletContext;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmupHttpServletRequestTest {
+
+    @Test
+    void testMethodAndPath() {
+        WarmupHttpServletRequest request = new WarmupHttpServletRequest("GET", "/cats/0");
+
+        assertEquals("GET", request.getMethod());
+        assertEquals("/cats/0", request.getRequestURI());
+        assertEquals("http://localhost/cats/0", request.getRequestURL().toString());
+        assertEquals("", request.getContextPath());
+        assertEquals(DispatcherType.REQUEST, request.getDispatcherType());
+    }
+
+    @Test
+    void testHeadersAreCaseInsensitive() {
+        WarmupHttpServletRequest request = new WarmupHttpServletRequest("GET", "/cats");
+        request.setHeader(ApiVersionedResourceRequestCondition.HEADER_VERSION, "2023-01-01");
+
+        assertEquals("2023-01-01", request.getHeader("api-version"));
+        assertTrue(request.getHeaders("API-VERSION").hasMoreElements());
+        assertFalse(request.getHeaders("Accept").hasMoreElements());
+    }
+
+    @Test
+    void testAttributes() {
+        WarmupHttpServletRequest request = new WarmupHttpServletRequest("GET", "/cats");
+
+        request.setAttribute("name", "value");
+        assertEquals("value", request.getAttribute("name"));
+
+        // Setting null removes the attribute
+        request.setAttribute("name", null);
+        assertNull(request.getAttribute("name"));
+    }
+
+    @Test
+    void testServletContextAndSession() {
+        ServletContext servletContext = new MockServletContext();
+
+        assertNull(new WarmupHttpServletRequest("GET", "/cats").getServletContext());
+        assertSame(servletContext, new WarmupHttpServletRequest("GET", "/cats", servletContext).getServletContext());
+
+        WarmupHttpServletRequest request = new WarmupHttpServletRequest("GET", "/cats");
+        assertNull(request.getSession(false));
+        assertThrows(IllegalStateException.class, request::getSession);
+    }
+}
@@ -0,0 +1,49 @@
+package dk.apaq.rest.version;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmupHttpServletResponseTest {
+
+    @Test
+    void testStatus() {
+        WarmupHttpServletResponse response = new WarmupHttpServletResponse();
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, response.getStatus());
+    }
+
+    @Test
+    void testHeaders() {
+        WarmupHttpServletResponse response = new WarmupHttpServletResponse();
+        response.addHeader("Vary", "Accept");
+        response.addHeader("vary", "Api-Version");
+
+        assertTrue(response.containsHeader("VARY"));
+        assertEquals("Accept", response.getHeader("Vary"));
+        assertEquals(2, response.getHeaders("Vary").size());
+
+        response.setHeader("Vary", "Origin");
+        assertEquals(1, response.getHeaders("Vary").size());
+    }
+
+    @Test
+    void testBodyIsDiscarded() throws IOException {
+        WarmupHttpServletResponse response = new WarmupHttpServletResponse();
+
+        response.getOutputStream().write("body".getBytes(StandardCharsets.UTF_8));
+        response.getWriter().write("body");
+        response.getWriter().flush();
+        response.flushBuffer();
+
+        // Verify that nothing is buffered or committed
+        assertEquals(0, response.getBufferSize());
+        assertFalse(response.isCommitted());
+    }
+}